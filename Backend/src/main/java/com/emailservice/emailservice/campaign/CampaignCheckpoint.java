@@ -0,0 +1,25 @@
+package com.emailservice.emailservice.campaign;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Durable progress marker for a campaign, stored next to its output file.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CampaignCheckpoint {
+    private String campaignId;      // Campaign that owns this output file
+    private long inputSize;         // Input file size when the campaign started
+    private long inputModifiedMs;   // Input file mtime when the campaign started
+    private long inputOffset;       // Input byte offset after the last checkpointed row
+    private long outputOffset;      // Output byte length at that row
+    private long rowsProcessed;     // Rows processed up to that row
+    private Map<String, Long> statusCounts = new HashMap<>();
+    private boolean completed;      // Whole input processed
+}
@@ -0,0 +1,387 @@
+package com.emailservice.emailservice.campaign;
+
+import com.emailservice.emailservice.model.CampaignProgress;
+import com.emailservice.emailservice.model.EmailRequest;
+import com.emailservice.emailservice.model.EmailStatus;
+import com.emailservice.emailservice.service.EmailScheduler;
+import com.emailservice.emailservice.service.EmailService;
+import com.emailservice.emailservice.util.FileSync;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Streams one campaign file through the send path.
+ *
+ * Rows are sent by a small worker pool but written to the output in input order,
+ * one EmailStatus JSON line per row. Every checkpointEvery rows the output is forced
+ * to disk and a checkpoint with the input/output offsets is written. On restart the
+ * job resumes from the checkpoint and also counts any output lines written after it,
+ * so rows that already have a result are not sent again.
+ */
+public class CampaignJob implements Runnable {
+
+    private static final Logger logger = LoggerFactory.getLogger(CampaignJob.class);
+
+    private static final long RATE_LIMIT_RETRY_MS = 1_000;   // Back off while the rate limiter is full
+
+    private final String campaignId;
+    private final Path inputPath;
+    private final Path outputPath;
+    private final Path checkpointPath;
+    private final CampaignRowParser parser;
+    private final EmailService emailService;
+    private final EmailScheduler emailScheduler;
+    private final ObjectMapper objectMapper;
+    private final int parallelism;
+    private final int checkpointEvery;
+
+    private volatile boolean stopRequested;
+    private String inputTag;   // Identifies this input file in generated requestIds; set before rows are submitted
+
+    // Progress, guarded by this
+    private String state = "RUNNING";
+    private String message;
+    private long rowsProcessed;
+    private long rowsThisRun;
+    private long bytesRead;
+    private long totalBytes;
+    private long inputModifiedMs;
+    private final Map<String, Long> statusCounts = new HashMap<>();
+    private final LocalDateTime startedAt = LocalDateTime.now();
+    private LocalDateTime updatedAt = startedAt;
+
+    public CampaignJob(String campaignId,
+                       Path inputPath,
+                       Path outputPath,
+                       CampaignRowParser parser,
+                       EmailService emailService,
+                       EmailScheduler emailScheduler,
+                       ObjectMapper objectMapper,
+                       int parallelism,
+                       int checkpointEvery) {
+        this.campaignId = campaignId;
+        this.inputPath = inputPath;
+        this.outputPath = outputPath;
+        this.checkpointPath = outputPath.resolveSibling(outputPath.getFileName() + ".checkpoint");
+        this.parser = parser;
+        this.emailService = emailService;
+        this.emailScheduler = emailScheduler;
+        this.objectMapper = objectMapper;
+        this.parallelism = parallelism;
+        this.checkpointEvery = checkpointEvery;
+    }
+
+    @Override
+    public void run() {
+        ExecutorService senders = Executors.newFixedThreadPool(parallelism);
+        try {
+            process(senders);
+        } catch (Exception e) {
+            logger.error("[Campaign {}] Failed", campaignId, e);
+            finish("FAILED", e.getMessage());
+        } finally {
+            senders.shutdownNow();
+        }
+    }
+
+    /**
+     * Ask the job to stop after the rows already in flight. No new rows are started, but rows
+     * already handed to the senders are finished (waiting out the rate limiter if need be) and
+     * recorded, so a resume never sends them a second time.
+     */
+    public void stop() {
+        stopRequested = true;
+    }
+
+    public String getCampaignId() {
+        return campaignId;
+    }
+
+    public Path getOutputPath() {
+        return outputPath;
+    }
+
+    /**
+     * Check that an existing checkpoint was written by this campaign for the same input file,
+     * or, on a first run, that the output is new or empty. Throws IllegalArgumentException otherwise.
+     */
+    public void validateCheckpoint() throws IOException {
+        loadCheckpoint();
+    }
+
+    public synchronized boolean isRunning() {
+        return "RUNNING".equals(state);
+    }
+
+    public synchronized CampaignProgress getProgress() {
+        double seconds = Duration.between(startedAt, updatedAt).toMillis() / 1000.0;
+        return new CampaignProgress(
+                campaignId,
+                state,
+                rowsProcessed,
+                new HashMap<>(statusCounts),
+                bytesRead,
+                totalBytes,
+                seconds > 0 ? rowsThisRun / seconds : 0,
+                message,
+                startedAt,
+                updatedAt
+        );
+    }
+
+    private void process(ExecutorService senders) throws Exception {
+        boolean firstRun = !Files.exists(checkpointPath);
+        CampaignCheckpoint checkpoint = loadCheckpoint();
+        synchronized (this) {
+            rowsProcessed = checkpoint.getRowsProcessed();
+            statusCounts.putAll(checkpoint.getStatusCounts());
+            bytesRead = checkpoint.getInputOffset();
+            totalBytes = checkpoint.getInputSize();
+            inputModifiedMs = checkpoint.getInputModifiedMs();
+        }
+        // Fixed by the checkpoint, so a resume generates the same ids
+        inputTag = Integer.toHexString(Objects.hash(
+                inputPath.getFileName().toString(), checkpoint.getInputSize(), checkpoint.getInputModifiedMs()));
+        if (checkpoint.isCompleted()) {
+            finish("COMPLETED", "Already completed");
+            return;
+        }
+
+        long startOffset = checkpoint.getInputOffset();
+        if (parser.needsHeader()) {
+            try (MappedLineReader headerReader = new MappedLineReader(inputPath, 0, MappedLineReader.DEFAULT_CHUNK_SIZE)) {
+                String header = headerReader.readLine();
+                if (header == null) {
+                    throw new IOException("CSV file has no header: " + inputPath);
+                }
+                parser.readHeader(header);
+                startOffset = Math.max(startOffset, headerReader.getOffset());
+            }
+        }
+
+        try (MappedLineReader reader = new MappedLineReader(inputPath, startOffset, MappedLineReader.DEFAULT_CHUNK_SIZE);
+             FileChannel output = FileChannel.open(outputPath,
+                     StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+
+            // Rows whose result reached the output after the last checkpoint are done already
+            long recovered = recoverOutput(output, checkpoint.getOutputOffset());
+            if (firstRun) {
+                // Claim the output for this campaign and input before sending anything
+                writeCheckpoint(output, false);
+            }
+            for (long skipped = 0; skipped < recovered; ) {
+                String line = reader.readLine();
+                if (line == null) {
+                    break;
+                }
+                if (!line.isBlank()) {
+                    skipped++;
+                }
+            }
+            synchronized (this) {
+                bytesRead = reader.getOffset();
+            }
+
+            // In-order window of rows being sent; bounds memory to `parallelism` rows
+            Deque<PendingRow> window = new ArrayDeque<>();
+            long rowNumber = rowsProcessed;
+            String line;
+            while (!stopRequested && (line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                String row = line;
+                long number = ++rowNumber;
+                window.add(new PendingRow(senders.submit(() -> processRow(row, number)), reader.getOffset()));
+                if (window.size() >= parallelism) {
+                    writeResult(output, window.poll());
+                }
+            }
+            // Drain even when stopping: these rows may already be sent, so their results must be kept
+            while (!window.isEmpty()) {
+                writeResult(output, window.poll());
+            }
+
+            boolean completed = reader.getOffset() >= reader.getFileSize();
+            writeCheckpoint(output, completed);
+            finish(completed ? "COMPLETED" : "STOPPED", null);
+        }
+    }
+
+    private EmailStatus processRow(String line, long rowNumber) throws InterruptedException {
+        EmailRequest request;
+        try {
+            request = parser.parse(line);
+        } catch (IllegalArgumentException e) {
+            return invalid(null, "Row " + rowNumber + ": " + e.getMessage());
+        }
+        if (request.getRequestId() == null || request.getRequestId().isBlank()) {
+            // Deterministic id, so a resumed campaign hits the same idempotency key, but tied to
+            // the input file, so reusing the campaignId for another file doesn't collide with it
+            request.setRequestId(campaignId + "-" + inputTag + "-" + rowNumber);
+        }
+        if (request.getTo() == null || request.getTo().isBlank()) {
+            return invalid(request.getRequestId(), "Row " + rowNumber + ": missing recipient");
+        }
+
+        if (request.getSendAt() != null && request.getSendAt().isAfter(OffsetDateTime.now())) {
+            return emailScheduler.schedule(request);
+        }
+
+        EmailStatus status = emailService.sendEmail(request);
+        // Also while stopping: rows behind this one may be sent already, and results are written in order
+        while ("RATE_LIMITED".equals(status.getStatus())) {
+            Thread.sleep(RATE_LIMIT_RETRY_MS);
+            status = emailService.sendEmail(request);
+        }
+        return status;
+    }
+
+    private void writeResult(FileChannel output, PendingRow row) throws Exception {
+        EmailStatus status = row.result.get();
+        writeLine(output, status);
+
+        boolean checkpointDue;
+        synchronized (this) {
+            rowsProcessed++;
+            rowsThisRun++;
+            statusCounts.merge(status.getStatus(), 1L, Long::sum);
+            bytesRead = row.inputOffset;
+            updatedAt = LocalDateTime.now();
+            checkpointDue = rowsProcessed % checkpointEvery == 0;
+        }
+        if (checkpointDue) {
+            writeCheckpoint(output, false);
+        }
+    }
+
+    private void writeLine(FileChannel output, EmailStatus status) throws IOException {
+        byte[] bytes = (objectMapper.writeValueAsString(status) + "\n").getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            output.write(buffer, output.size());
+        }
+    }
+
+    /**
+     * Cut off a torn last line, then add the result lines written after the checkpoint
+     * to the progress. Returns the number of recovered rows.
+     */
+    private long recoverOutput(FileChannel output, long checkpointOffset) throws IOException {
+        long size = output.size();
+        if (size < checkpointOffset) {
+            throw new IOException("Output file is shorter than its checkpoint: " + outputPath);
+        }
+
+        // Scan back to the last newline; anything after it is a partial write
+        long validEnd = size;
+        ByteBuffer oneByte = ByteBuffer.allocate(1);
+        while (validEnd > checkpointOffset) {
+            oneByte.clear();
+            output.read(oneByte, validEnd - 1);
+            if (oneByte.get(0) == '\n') {
+                break;
+            }
+            validEnd--;
+        }
+        output.truncate(validEnd);
+        if (validEnd == checkpointOffset) {
+            return 0;
+        }
+
+        long recovered = 0;
+        try (MappedLineReader reader = new MappedLineReader(outputPath, checkpointOffset, MappedLineReader.DEFAULT_CHUNK_SIZE)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                EmailStatus status = objectMapper.readValue(line, EmailStatus.class);
+                synchronized (this) {
+                    rowsProcessed++;
+                    statusCounts.merge(status.getStatus(), 1L, Long::sum);
+                }
+                recovered++;
+            }
+        }
+        return recovered;
+    }
+
+    private CampaignCheckpoint loadCheckpoint() throws IOException {
+        long inputSize = Files.size(inputPath);
+        long modifiedMs = Files.getLastModifiedTime(inputPath).toMillis();
+        if (!Files.exists(checkpointPath)) {
+            if (Files.exists(outputPath) && Files.size(outputPath) > 0) {
+                // Not ours: recoverOutput would truncate it and count its lines as sent rows
+                throw new IllegalArgumentException("Output " + outputPath.getFileName()
+                        + " already exists and has no checkpoint");
+            }
+            CampaignCheckpoint fresh = new CampaignCheckpoint();
+            fresh.setCampaignId(campaignId);
+            fresh.setInputSize(inputSize);
+            fresh.setInputModifiedMs(modifiedMs);
+            return fresh;
+        }
+
+        CampaignCheckpoint checkpoint = objectMapper.readValue(checkpointPath.toFile(), CampaignCheckpoint.class);
+        if (!campaignId.equals(checkpoint.getCampaignId())) {
+            throw new IllegalArgumentException("Output " + outputPath.getFileName()
+                    + " belongs to campaign " + checkpoint.getCampaignId());
+        }
+        if (checkpoint.getInputSize() != inputSize || checkpoint.getInputModifiedMs() != modifiedMs) {
+            // Offsets into a different file would resume mid-line
+            throw new IllegalArgumentException("Input " + inputPath.getFileName()
+                    + " changed since campaign " + campaignId + " started");
+        }
+        return checkpoint;
+    }
+
+    private void writeCheckpoint(FileChannel output, boolean completed) throws IOException {
+        output.force(false);   // Results must be on disk before the checkpoint points past them
+
+        CampaignCheckpoint checkpoint;
+        synchronized (this) {
+            checkpoint = new CampaignCheckpoint(campaignId, totalBytes, inputModifiedMs,
+                    bytesRead, output.size(), rowsProcessed, new HashMap<>(statusCounts), completed);
+        }
+        FileSync.replace(checkpointPath, objectMapper.writeValueAsBytes(checkpoint));
+    }
+
+    private synchronized void finish(String finalState, String finalMessage) {
+        state = finalState;
+        message = finalMessage;
+        updatedAt = LocalDateTime.now();
+        logger.info("[Campaign {}] {} after {} rows", campaignId, finalState, rowsProcessed);
+    }
+
+    private static EmailStatus invalid(String requestId, String message) {
+        return new EmailStatus(requestId, "INVALID", null, 0, message, LocalDateTime.now());
+    }
+
+    private static final class PendingRow {
+        private final Future<EmailStatus> result;
+        private final long inputOffset;   // Input offset just past this row
+
+        private PendingRow(Future<EmailStatus> result, long inputOffset) {
+            this.result = result;
+            this.inputOffset = inputOffset;
+        }
+    }
+}
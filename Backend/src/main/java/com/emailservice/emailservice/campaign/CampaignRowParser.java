@@ -0,0 +1,134 @@
+package com.emailservice.emailservice.campaign;
+
+import com.emailservice.emailservice.model.EmailRequest;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Turns one line of a campaign file into an EmailRequest.
+ *
+ * NDJSON lines use the same fields as the /api/email/send payload.
+ * CSV files need a header naming the columns (requestId, to, subject, body, sendAt);
+ * sendAt is ISO-8601 with an offset, e.g. 2025-07-11T09:00:00Z.
+ * quoted fields may contain commas and doubled quotes, but not newlines.
+ */
+public class CampaignRowParser {
+
+    public enum Format { NDJSON, CSV }
+
+    private final Format format;
+    private final ObjectMapper objectMapper;
+    private Map<String, Integer> columns;   // CSV header: lower-case name -> index
+
+    public CampaignRowParser(Format format, ObjectMapper objectMapper) {
+        this.format = format;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Picks the format from the file extension: .csv is CSV, anything else NDJSON.
+     */
+    public static Format detectFormat(String fileName) {
+        return fileName.toLowerCase(Locale.ROOT).endsWith(".csv") ? Format.CSV : Format.NDJSON;
+    }
+
+    public boolean needsHeader() {
+        return format == Format.CSV;
+    }
+
+    public void readHeader(String line) {
+        List<String> names = splitCsv(line);
+        columns = new HashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            columns.put(names.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        if (!columns.containsKey("to")) {
+            throw new IllegalArgumentException("CSV header must contain a 'to' column");
+        }
+    }
+
+    /**
+     * Parse one row. Throws IllegalArgumentException if the row is malformed.
+     */
+    public EmailRequest parse(String line) {
+        return format == Format.CSV ? parseCsv(line) : parseJson(line);
+    }
+
+    private EmailRequest parseJson(String line) {
+        try {
+            JsonNode node = objectMapper.readTree(line);
+            if (node == null || !node.isObject()) {
+                // e.g. null, a number or an array: valid JSON, but not a row
+                throw new IllegalArgumentException("Row is not a JSON object");
+            }
+            return objectMapper.treeToValue(node, EmailRequest.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid JSON row: " + e.getOriginalMessage(), e);
+        }
+    }
+
+    private EmailRequest parseCsv(String line) {
+        List<String> fields = splitCsv(line);
+        EmailRequest request = new EmailRequest(
+                column(fields, "requestid"),
+                column(fields, "to"),
+                column(fields, "subject"),
+                column(fields, "body")
+        );
+        String sendAt = column(fields, "sendat");
+        if (sendAt != null && !sendAt.isBlank()) {
+            try {
+                request.setSendAt(OffsetDateTime.parse(sendAt.trim()));
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("Invalid sendAt: " + sendAt, e);
+            }
+        }
+        return request;
+    }
+
+    private String column(List<String> fields, String name) {
+        Integer index = columns.get(name);
+        return index != null && index < fields.size() ? fields.get(index) : null;
+    }
+
+    static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        fields.add(current.toString());
+        return fields;
+    }
+}
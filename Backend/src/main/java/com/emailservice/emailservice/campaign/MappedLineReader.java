@@ -0,0 +1,108 @@
+package com.emailservice.emailservice.campaign;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a file line by line through a sliding memory-mapped window,
+ * so only one chunk of the file is mapped at a time.
+ *
+ * Tracks the byte offset after each line, which is what campaign checkpoints store.
+ */
+public class MappedLineReader implements Closeable {
+
+    public static final int DEFAULT_CHUNK_SIZE = 16 * 1024 * 1024;   // 16 MB window
+
+    private final FileChannel channel;
+    private final long fileSize;
+    private final int chunkSize;
+
+    private MappedByteBuffer window;
+    private long windowStart;
+    private long offset;   // Byte offset of the next unread line
+
+    public MappedLineReader(Path path, long startOffset, int chunkSize) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.fileSize = channel.size();
+        this.chunkSize = chunkSize;
+        this.offset = startOffset;
+    }
+
+    /**
+     * Returns the next line without its terminator, or null at end of file.
+     * A final line without a trailing newline is still returned.
+     */
+    public String readLine() throws IOException {
+        while (offset < fileSize) {
+            if (window == null || offset >= windowStart + window.limit()) {
+                map(offset);
+            }
+
+            int start = (int) (offset - windowStart);
+            int end = indexOfNewline(start);
+            if (end < 0) {
+                boolean windowReachesEof = windowStart + window.limit() >= fileSize;
+                if (!windowReachesEof) {
+                    if (start == 0) {
+                        throw new IOException("Line at offset " + offset + " is longer than " + chunkSize + " bytes");
+                    }
+                    // Line straddles the window edge: remap starting at the line
+                    map(offset);
+                    continue;
+                }
+                end = window.limit();
+            }
+
+            String line = decode(start, end);
+            offset = windowStart + Math.min(end + 1, window.limit());
+            if (line.endsWith("\r")) {
+                line = line.substring(0, line.length() - 1);
+            }
+            return line;
+        }
+        return null;
+    }
+
+    /**
+     * Byte offset just past the last line returned.
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    public long getFileSize() {
+        return fileSize;
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null;
+        channel.close();
+    }
+
+    private void map(long position) throws IOException {
+        long length = Math.min(chunkSize, fileSize - position);
+        window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+        windowStart = position;
+    }
+
+    private int indexOfNewline(int from) {
+        for (int i = from; i < window.limit(); i++) {
+            if (window.get(i) == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private String decode(int start, int end) {
+        byte[] bytes = new byte[end - start];
+        window.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,59 @@
+package com.emailservice.emailservice.controller;
+
+import com.emailservice.emailservice.model.CampaignProgress;
+import com.emailservice.emailservice.model.CampaignRequest;
+import com.emailservice.emailservice.service.CampaignService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+@RestController
+@RequestMapping("/api/campaign")
+public class CampaignController {
+
+    private final CampaignService campaignService;
+
+    // Constructor-based injection
+    public CampaignController(CampaignService campaignService) {
+        this.campaignService = campaignService;
+    }
+
+    /**
+     * Endpoint to start a campaign from a file, or resume it from its checkpoint.
+     */
+    @PostMapping
+    public ResponseEntity<CampaignProgress> startCampaign(@RequestBody CampaignRequest request) {
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(campaignService.start(request));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Endpoint to get progress and throughput of a campaign.
+     */
+    @GetMapping("/{campaignId}")
+    public ResponseEntity<CampaignProgress> getProgress(@PathVariable String campaignId) {
+        CampaignProgress progress = campaignService.getProgress(campaignId);
+        if (progress != null) {
+            return ResponseEntity.ok(progress);
+        } else {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    /**
+     * Endpoint to stop a campaign. Starting it again resumes from the checkpoint.
+     */
+    @DeleteMapping("/{campaignId}")
+    public ResponseEntity<CampaignProgress> stopCampaign(@PathVariable String campaignId) {
+        CampaignProgress progress = campaignService.stop(campaignId);
+        if (progress != null) {
+            return ResponseEntity.ok(progress);
+        } else {
+            return ResponseEntity.notFound().build();
+        }
+    }
+}
@@ -1,35 +1,52 @@
 package com.emailservice.emailservice.controller;
 
+import com.emailservice.emailservice.service.EmailScheduler;
 import com.emailservice.emailservice.service.EmailService;
 import com.emailservice.emailservice.model.EmailRequest;
 import com.emailservice.emailservice.model.EmailStatus;
+import com.emailservice.emailservice.model.RescheduleRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.OffsetDateTime;
+
 @RestController
 @RequestMapping("/api/email")
 public class EmailController {
 
     private final EmailService emailService;
+    private final EmailScheduler emailScheduler;
 
     // Constructor-based injection
-    public EmailController(EmailService emailService) {
+    public EmailController(EmailService emailService, EmailScheduler emailScheduler) {
         this.emailService = emailService;
+        this.emailScheduler = emailScheduler;
     }
 
     /**
-     * Endpoint to send an email.
+     * Endpoint to send an email. A future sendAt schedules it instead.
      */
     @PostMapping("/send")
     public ResponseEntity<String> sendEmail(@RequestBody EmailRequest request) {
-        EmailStatus status = emailService.sendEmail(request);
+        EmailStatus status;
+        if (request.getSendAt() != null && request.getSendAt().isAfter(OffsetDateTime.now())) {
+            status = emailScheduler.schedule(request);
+        } else {
+            status = emailService.sendEmail(request);
+        }
         HttpStatus httpStatus;
 
         switch (status.getStatus()) {
             case "SENT":
                 httpStatus = HttpStatus.OK;
                 break;
+            case "SCHEDULED":
+                httpStatus = HttpStatus.ACCEPTED;
+                break;
+            case "SENDING":
+                httpStatus = HttpStatus.CONFLICT;
+                break;
             case "RATE_LIMITED":
                 httpStatus = HttpStatus.TOO_MANY_REQUESTS;
                 break;
@@ -48,11 +65,49 @@ public class EmailController {
      */
     @GetMapping("/status/{requestId}")
     public ResponseEntity<EmailStatus> getEmailStatus(@PathVariable String requestId) {
-        EmailStatus status = emailService.getStatusByRequestId(requestId);
+        // A pending scheduled email wins over an earlier RATE_LIMITED attempt
+        EmailStatus status = emailScheduler.getStatus(requestId);
+        if (status == null) {
+            status = emailService.getStatusByRequestId(requestId);
+        }
         if (status != null) {
             return ResponseEntity.ok(status);
         } else {
             return ResponseEntity.notFound().build();
         }
     }
+
+    /**
+     * Endpoint to cancel a scheduled email.
+     */
+    @DeleteMapping("/scheduled/{requestId}")
+    public ResponseEntity<EmailStatus> cancelScheduledEmail(@PathVariable String requestId) {
+        EmailStatus status = emailScheduler.cancel(requestId);
+        if (status == null) {
+            return ResponseEntity.notFound().build();
+        } else if ("SENDING".equals(status.getStatus())) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(status);   // Too late to change
+        } else {
+            return ResponseEntity.ok(status);
+        }
+    }
+
+    /**
+     * Endpoint to move a scheduled email to a new sendAt.
+     */
+    @PutMapping("/scheduled/{requestId}")
+    public ResponseEntity<EmailStatus> rescheduleEmail(@PathVariable String requestId,
+                                                       @RequestBody RescheduleRequest request) {
+        if (request.getSendAt() == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        EmailStatus status = emailScheduler.reschedule(requestId, request.getSendAt());
+        if (status == null) {
+            return ResponseEntity.notFound().build();
+        } else if ("SENDING".equals(status.getStatus())) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(status);   // Too late to change
+        } else {
+            return ResponseEntity.ok(status);
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,28 @@
+package com.emailservice.emailservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Snapshot of a campaign's progress.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CampaignProgress {
+
+    private String campaignId;
+    private String state;                   // RUNNING, COMPLETED, STOPPED, FAILED
+    private long rowsProcessed;             // Rows written to the output, including earlier runs
+    private Map<String, Long> statusCounts; // Rows per EmailStatus status (SENT, FAILED, INVALID, ...)
+    private long bytesRead;                 // Input offset of the last processed row
+    private long totalBytes;                // Input file size
+    private double rowsPerSecond;           // Throughput of the current run
+    private String message;                 // Error or informational message
+    private LocalDateTime startedAt;        // Start of the current run
+    private LocalDateTime updatedAt;        // Time of the last processed row
+}
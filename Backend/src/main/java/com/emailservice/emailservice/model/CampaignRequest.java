@@ -0,0 +1,18 @@
+package com.emailservice.emailservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Payload to start (or resume) a bulk campaign from a local file.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CampaignRequest {
+    private String campaignId;   // Unique campaign name; also the prefix for generated requestIds
+    private String inputFile;    // NDJSON or CSV file, relative to email.campaign.dir
+    private String outputFile;   // Optional: per-row EmailStatus output, defaults to <inputFile>.<campaignId>.status.ndjson
+    private String format;       // Optional: NDJSON or CSV, detected from the extension if empty
+}
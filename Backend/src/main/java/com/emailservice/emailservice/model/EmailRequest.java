@@ -4,6 +4,8 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.OffsetDateTime;
+
 /**
  * Represents the input payload to send an email.
  */
@@ -15,4 +17,12 @@ public class EmailRequest {
     private String to;          // Recipient's email address
     private String subject;     // Email subject line
     private String body;        // Email content
+    private OffsetDateTime sendAt; // Optional: when set in the future, the email is scheduled (needs an offset, e.g. Z)
+
+    /**
+     * Creates a request that is sent immediately.
+     */
+    public EmailRequest(String requestId, String to, String subject, String body) {
+        this(requestId, to, subject, body, null);
+    }
 }
\ No newline at end of file
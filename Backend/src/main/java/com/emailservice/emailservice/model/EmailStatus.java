@@ -15,7 +15,7 @@ import java.time.LocalDateTime;
 public class EmailStatus {
 
     private String requestId;        // Same as EmailRequest ID
-    private String status;           // SENT, FAILED, RATE_LIMITED
+    private String status;           // SENT, FAILED, RATE_LIMITED, SCHEDULED, SENDING, CANCELLED, INVALID
     private String providerUsed;     // MockProvider1 or MockProvider2
     private int attempts;            // Number of total attempts made
     private String message;          // Success/failure message
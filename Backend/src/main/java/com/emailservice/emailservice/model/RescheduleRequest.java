@@ -0,0 +1,17 @@
+package com.emailservice.emailservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Payload to move a scheduled email to a new send time.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RescheduleRequest {
+    private OffsetDateTime sendAt;   // New send time, with offset
+}
@@ -0,0 +1,310 @@
+package com.emailservice.emailservice.scheduler;
+
+import com.emailservice.emailservice.model.EmailRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Append-only file log of scheduled emails, one JSON record per line.
+ * Appends are written straight away and made durable by sync(), which forces
+ * every append made so far at once (group commit). Replaying the log
+ * rebuilds the pending set after a restart.
+ */
+public class ScheduleJournal implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ScheduleJournal.class);
+
+    public static final String SCHEDULE = "SCHEDULE";
+    public static final String CANCEL = "CANCEL";
+    public static final String RELEASE = "RELEASE";
+
+    private static final int COMPACT_BATCH_BYTES = 1 << 20;   // Write compacted records in 1 MB chunks
+
+    private final Path path;
+    private final ObjectMapper objectMapper;
+    private FileChannel channel;
+    private long recordCount;
+    private long appendedSeq;              // Appends written so far
+    private long syncedSeq;                // Appends known to be on disk
+    private final Object syncLock = new Object();   // One force at a time; waiters usually find their append covered
+    private List<byte[]> compactionTail;   // Lines appended while a compaction is writing
+    private long compactionEnd;            // File size when the compaction began
+
+    public ScheduleJournal(Path path, ObjectMapper objectMapper) {
+        this.path = path;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Read the journal and return the still-pending records by requestId.
+     */
+    public Map<String, JournalRecord> replay() throws IOException {
+        Map<String, JournalRecord> pending = new LinkedHashMap<>();
+        if (!Files.exists(path)) {
+            return pending;
+        }
+
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                JournalRecord record;
+                try {
+                    record = objectMapper.readValue(line, JournalRecord.class);
+                } catch (IOException e) {
+                    // A crash mid-append can leave a torn last line
+                    logger.warn("Skipping unreadable journal line in {}: {}", path, e.getMessage());
+                    continue;
+                }
+                if (SCHEDULE.equals(record.getOp())) {
+                    pending.put(record.getRequestId(), record);
+                } else {
+                    pending.remove(record.getRequestId());
+                }
+            }
+        }
+        return pending;
+    }
+
+    /**
+     * Start a compaction. Appends made after this are carried over into the compacted file;
+     * the records before it are filtered by compact().
+     */
+    public synchronized void beginCompaction() throws IOException {
+        compactionTail = new ArrayList<>();
+        compactionEnd = Files.exists(path) ? Files.size(path) : 0;
+    }
+
+    /**
+     * Rewrite the journal so it only holds the SCHEDULE records written before beginCompaction()
+     * that isLive accepts, plus anything appended since. The old file is streamed, so nothing is
+     * copied into memory, and no lock is held while writing; appends keep going to the old file.
+     *
+     * isLive may be asked about several SCHEDULE records for one requestId; accepting a stale one
+     * is harmless as long as the current one is accepted too, since the last record wins on replay.
+     */
+    public void compact(Predicate<JournalRecord> isLive) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path tmp = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+        long end;
+        synchronized (this) {
+            end = compactionEnd;
+        }
+        try {
+            try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                long kept = 0;
+                ByteArrayOutputStream batch = new ByteArrayOutputStream();
+                if (end > 0) {
+                    try (InputStream in = new BufferedInputStream(Files.newInputStream(path))) {
+                        ByteArrayOutputStream line = new ByteArrayOutputStream();
+                        for (long position = 0; position < end; position++) {
+                            int b = in.read();
+                            if (b < 0) {
+                                break;
+                            }
+                            line.write(b);
+                            if (b != '\n') {
+                                continue;   // A torn last line never gets here and is dropped
+                            }
+                            if (isLiveLine(line.toByteArray(), isLive)) {
+                                line.writeTo(batch);
+                                kept++;
+                            }
+                            line.reset();
+                            if (batch.size() >= COMPACT_BATCH_BYTES) {
+                                writeFully(out, batch.toByteArray());
+                                batch.reset();
+                            }
+                        }
+                    }
+                }
+                writeFully(out, batch.toByteArray());
+                finishCompaction(out, tmp, kept);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+            synchronized (this) {
+                compactionTail = null;   // Also stop collecting if the compaction failed
+            }
+        }
+    }
+
+    /**
+     * The append* methods return a sequence number to pass to sync() before acknowledging the change.
+     */
+    public synchronized long appendSchedule(EmailRequest request, long deadlineMs) throws IOException {
+        return append(new JournalRecord(SCHEDULE, request.getRequestId(), deadlineMs, request));
+    }
+
+    public synchronized long appendCancel(String requestId) throws IOException {
+        return append(new JournalRecord(CANCEL, requestId, 0, null));
+    }
+
+    public synchronized long appendRelease(String requestId) throws IOException {
+        return append(new JournalRecord(RELEASE, requestId, 0, null));
+    }
+
+    /**
+     * Block until the append with this sequence number is on disk. Concurrent callers share
+     * one force: whoever forces covers every append written before it started.
+     */
+    public void sync(long seq) throws IOException {
+        synchronized (syncLock) {
+            while (true) {
+                FileChannel target;
+                long upTo;
+                synchronized (this) {
+                    if (syncedSeq >= seq || channel == null) {
+                        return;   // Covered by an earlier force, a compaction or close()
+                    }
+                    target = channel;
+                    upTo = appendedSeq;
+                }
+                try {
+                    target.force(false);
+                } catch (ClosedByInterruptException e) {
+                    throw e;
+                } catch (ClosedChannelException e) {
+                    // Swapped out by a compaction (which forces what it carries over),
+                    // or closed by another thread's interrupt: reopen and force again
+                    synchronized (this) {
+                        if (channel == target) {
+                            open();
+                        }
+                    }
+                    continue;
+                }
+                synchronized (this) {
+                    syncedSeq = Math.max(syncedSeq, upTo);
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Number of records in the file, live or not. Used to decide when to compact.
+     */
+    public synchronized long getRecordCount() {
+        return recordCount;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            if (!channel.isOpen()) {
+                open();   // Closed by an interrupt; a fresh handle forces the same file
+            }
+            channel.force(false);
+            syncedSeq = appendedSeq;
+            channel.close();
+            channel = null;
+        }
+    }
+
+    private synchronized void finishCompaction(FileChannel out, Path tmp, long liveCount) throws IOException {
+        List<byte[]> tail = compactionTail != null ? compactionTail : List.of();
+        for (byte[] line : tail) {
+            writeFully(out, line);
+        }
+        // The new file must be on disk before it replaces the old one
+        out.force(true);
+        close();
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        forceDirectory(path.toAbsolutePath().getParent());
+
+        recordCount = liveCount + tail.size();
+        compactionTail = null;
+        open();
+    }
+
+    private void open() throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private long append(JournalRecord record) throws IOException {
+        if (channel == null || !channel.isOpen()) {   // Also after an interrupt closed it
+            open();
+        }
+        byte[] line = toLine(record);
+        writeFully(channel, line);
+        recordCount++;
+        if (compactionTail != null) {
+            compactionTail.add(line);
+        }
+        return ++appendedSeq;
+    }
+
+    private boolean isLiveLine(byte[] line, Predicate<JournalRecord> isLive) {
+        JournalRecord record;
+        try {
+            record = objectMapper.readValue(line, JournalRecord.class);
+        } catch (IOException e) {
+            return false;   // Unreadable lines are skipped on replay too
+        }
+        return SCHEDULE.equals(record.getOp()) && isLive.test(record);
+    }
+
+    private byte[] toLine(JournalRecord record) throws IOException {
+        return (objectMapper.writeValueAsString(record) + "\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void writeFully(FileChannel out, byte[] bytes) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+
+    /**
+     * Persist the directory entry after a rename. Not supported on every platform, so best effort.
+     */
+    static void forceDirectory(Path dir) {
+        try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            logger.debug("Could not sync directory {}: {}", dir, e.getMessage());
+        }
+    }
+
+    /**
+     * One journal line.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class JournalRecord {
+        private String op;               // SCHEDULE, CANCEL or RELEASE
+        private String requestId;
+        private long deadlineMs;         // Epoch millis, SCHEDULE only
+        private EmailRequest request;    // SCHEDULE only
+    }
+}
@@ -0,0 +1,240 @@
+package com.emailservice.emailservice.scheduler;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Hierarchical timing wheel keyed by id.
+ *
+ * Each level has 64 slots; level N covers 64^(N+1) ticks. Entries live in
+ * doubly-linked slot lists, so schedule and cancel are O(1). Entries on an
+ * outer level are cascaded down when the level below wraps around.
+ *
+ * Not thread-safe: callers must synchronize externally.
+ */
+public class TimingWheel<T> {
+
+    private static final int WHEEL_BITS = 6;                 // 64 slots per level
+    private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+    private static final long WHEEL_MASK = WHEEL_SIZE - 1;
+    private static final int LEVELS = 5;                     // 64^5 ticks (~34 years at 1s)
+
+    private final long tickMs;
+    private final List<List<Slot<T>>> wheels = new ArrayList<>();
+    private final Slot<T> overflow = new Slot<>();           // Beyond the top level
+    private final Slot<T> ready = new Slot<>();              // Due, not yet returned by advance()
+    private final Map<String, Node<T>> index = new HashMap<>();
+
+    private long currentTick;
+
+    public TimingWheel(long tickMs, long startMs) {
+        if (tickMs <= 0) {
+            throw new IllegalArgumentException("tickMs must be positive");
+        }
+        this.tickMs = tickMs;
+        this.currentTick = startMs / tickMs;
+        for (int level = 0; level < LEVELS; level++) {
+            List<Slot<T>> slots = new ArrayList<>(WHEEL_SIZE);
+            for (int i = 0; i < WHEEL_SIZE; i++) {
+                slots.add(new Slot<>());
+            }
+            wheels.add(slots);
+        }
+    }
+
+    /**
+     * Schedule (or re-schedule) an entry to fire at deadlineMs.
+     */
+    public void schedule(String id, long deadlineMs, T value) {
+        cancel(id);
+        // Round up so an entry never fires before its deadline
+        Node<T> node = new Node<>(id, value, deadlineMs, Math.floorDiv(deadlineMs + tickMs - 1, tickMs));
+        index.put(id, node);
+        place(node);
+    }
+
+    /**
+     * Remove a pending entry. Returns its value, or null if it was not pending.
+     */
+    public T cancel(String id) {
+        Node<T> node = index.remove(id);
+        if (node == null) {
+            return null;
+        }
+        node.unlink();
+        return node.value;
+    }
+
+    /**
+     * Value of a pending entry, or null if it is not pending.
+     */
+    public T get(String id) {
+        Node<T> node = index.get(id);
+        return node != null ? node.value : null;
+    }
+
+    public boolean contains(String id) {
+        return index.containsKey(id);
+    }
+
+    /**
+     * Deadline of a pending entry, or null if it is not pending.
+     */
+    public Long deadlineOf(String id) {
+        Node<T> node = index.get(id);
+        return node != null ? node.deadlineMs : null;
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    /**
+     * Visit every pending entry with its deadline.
+     */
+    public void forEach(BiConsumer<T, Long> action) {
+        for (Node<T> node : index.values()) {
+            action.accept(node.value, node.deadlineMs);
+        }
+    }
+
+    /**
+     * Move the wheel forward to nowMs and return (and remove) every due entry.
+     */
+    public List<T> advance(long nowMs) {
+        long targetTick = nowMs / tickMs;
+        if (index.isEmpty()) {
+            // Nothing to cascade, skip the idle ticks
+            currentTick = Math.max(currentTick, targetTick);
+            return new ArrayList<>();
+        }
+
+        while (currentTick < targetTick) {
+            currentTick++;
+            cascadeOuterLevels();
+            ready.moveAllFrom(slotAt(0, currentTick));
+        }
+
+        List<T> due = new ArrayList<>();
+        for (Node<T> node = ready.drain(); node != null; node = node.next) {
+            index.remove(node.id);
+            due.add(node.value);
+        }
+        return due;
+    }
+
+    private void cascadeOuterLevels() {
+        for (int level = 1; level < LEVELS; level++) {
+            if ((currentTick & ((1L << (WHEEL_BITS * level)) - 1)) != 0) {
+                return; // Lower level has not wrapped, so neither has this one
+            }
+            reinsert(slotAt(level, currentTick));
+        }
+        if ((currentTick & ((1L << (WHEEL_BITS * LEVELS)) - 1)) == 0) {
+            reinsert(overflow);
+        }
+    }
+
+    private void reinsert(Slot<T> slot) {
+        Node<T> node = slot.drain();
+        while (node != null) {
+            Node<T> next = node.next;
+            place(node);
+            node = next;
+        }
+    }
+
+    private void place(Node<T> node) {
+        long delta = node.expiryTick - currentTick;
+        if (delta <= 0) {
+            ready.add(node);
+            return;
+        }
+        for (int level = 0; level < LEVELS; level++) {
+            if (delta < 1L << (WHEEL_BITS * (level + 1))) {
+                slotAt(level, node.expiryTick).add(node);
+                return;
+            }
+        }
+        overflow.add(node);
+    }
+
+    private Slot<T> slotAt(int level, long tick) {
+        return wheels.get(level).get((int) ((tick >>> (WHEEL_BITS * level)) & WHEEL_MASK));
+    }
+
+    private static final class Node<T> {
+        private final String id;
+        private final T value;
+        private final long deadlineMs;
+        private final long expiryTick;
+        private Node<T> prev;
+        private Node<T> next;
+        private Slot<T> slot;
+
+        private Node(String id, T value, long deadlineMs, long expiryTick) {
+            this.id = id;
+            this.value = value;
+            this.deadlineMs = deadlineMs;
+            this.expiryTick = expiryTick;
+        }
+
+        private void unlink() {
+            if (slot != null) {
+                slot.remove(this);
+            }
+        }
+    }
+
+    private static final class Slot<T> {
+        private Node<T> head;
+
+        private void add(Node<T> node) {
+            node.slot = this;
+            node.prev = null;
+            node.next = head;
+            if (head != null) {
+                head.prev = node;
+            }
+            head = node;
+        }
+
+        private void remove(Node<T> node) {
+            if (node.prev != null) {
+                node.prev.next = node.next;
+            } else {
+                head = node.next;
+            }
+            if (node.next != null) {
+                node.next.prev = node.prev;
+            }
+            node.prev = null;
+            node.next = null;
+            node.slot = null;
+        }
+
+        /**
+         * Detach the whole list and return its head; nodes keep their next links.
+         */
+        private Node<T> drain() {
+            Node<T> first = head;
+            head = null;
+            for (Node<T> node = first; node != null; node = node.next) {
+                node.slot = null;
+            }
+            return first;
+        }
+
+        private void moveAllFrom(Slot<T> other) {
+            Node<T> node = other.drain();
+            while (node != null) {
+                Node<T> next = node.next;
+                add(node);
+                node = next;
+            }
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.emailservice.emailservice.service;
+
+import com.emailservice.emailservice.campaign.CampaignJob;
+import com.emailservice.emailservice.campaign.CampaignRowParser;
+import com.emailservice.emailservice.model.CampaignProgress;
+import com.emailservice.emailservice.model.CampaignRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Starts, tracks and stops bulk campaigns read from files under email.campaign.dir.
+ */
+@Service
+public class CampaignService {
+
+    private static final Pattern CAMPAIGN_ID = Pattern.compile("[A-Za-z0-9._-]+");
+
+    private final EmailService emailService;
+    private final EmailScheduler emailScheduler;
+    private final ObjectMapper objectMapper;
+    private final Path campaignDir;
+    private final int parallelism;
+    private final int checkpointEvery;
+
+    // Jobs started since boot, by campaignId
+    private final Map<String, CampaignJob> jobs = new ConcurrentHashMap<>();
+    private final ExecutorService runner = Executors.newCachedThreadPool();
+
+    public CampaignService(EmailService emailService,
+                           EmailScheduler emailScheduler,
+                           ObjectMapper objectMapper,
+                           @Value("${email.campaign.dir:data/campaigns}") String campaignDir,
+                           @Value("${email.campaign.parallelism:4}") int parallelism,
+                           @Value("${email.campaign.checkpoint-every:1000}") int checkpointEvery) {
+        this.emailService = emailService;
+        this.emailScheduler = emailScheduler;
+        this.objectMapper = objectMapper;
+        this.campaignDir = Path.of(campaignDir).toAbsolutePath().normalize();
+        this.parallelism = parallelism;
+        this.checkpointEvery = checkpointEvery;
+    }
+
+    /**
+     * Start a campaign, or resume it from its checkpoint if it ran before.
+     * Returns the current progress if it is already running.
+     */
+    public synchronized CampaignProgress start(CampaignRequest request) {
+        String campaignId = request.getCampaignId();
+        if (campaignId == null || !CAMPAIGN_ID.matcher(campaignId).matches()) {
+            throw new IllegalArgumentException("campaignId is required and may only contain letters, digits, '.', '_' and '-'");
+        }
+        if (request.getInputFile() == null || request.getInputFile().isBlank()) {
+            throw new IllegalArgumentException("inputFile is required");
+        }
+
+        Path input = resolve(request.getInputFile());
+        if (!Files.isRegularFile(input)) {
+            throw new IllegalArgumentException("Input file not found: " + request.getInputFile());
+        }
+        String outputFile = request.getOutputFile() != null && !request.getOutputFile().isBlank()
+                ? request.getOutputFile()
+                : request.getInputFile() + "." + campaignId + ".status.ndjson";
+        Path output = resolve(outputFile);
+        if (output.equals(input)) {
+            throw new IllegalArgumentException("outputFile must not be the input file");
+        }
+
+        CampaignRowParser.Format format = request.getFormat() != null && !request.getFormat().isBlank()
+                ? CampaignRowParser.Format.valueOf(request.getFormat().toUpperCase(Locale.ROOT))
+                : CampaignRowParser.detectFormat(input.getFileName().toString());
+
+        CampaignJob existing = jobs.get(campaignId);
+        if (existing != null && existing.isRunning()) {
+            return existing.getProgress();
+        }
+        for (CampaignJob other : jobs.values()) {
+            if (other.isRunning() && other.getOutputPath().equals(output)) {
+                throw new IllegalArgumentException("Output file is in use by campaign " + other.getCampaignId());
+            }
+        }
+
+        CampaignJob job = new CampaignJob(campaignId, input, output,
+                new CampaignRowParser(format, objectMapper),
+                emailService, emailScheduler, objectMapper,
+                parallelism, checkpointEvery);
+        try {
+            job.validateCheckpoint();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read checkpoint of campaign " + campaignId, e);
+        }
+        jobs.put(campaignId, job);
+        runner.execute(job);
+        return job.getProgress();
+    }
+
+    /**
+     * Progress of a campaign started since boot, or null if unknown.
+     */
+    public CampaignProgress getProgress(String campaignId) {
+        CampaignJob job = jobs.get(campaignId);
+        return job != null ? job.getProgress() : null;
+    }
+
+    /**
+     * Stop a running campaign after its in-flight rows. Returns null if unknown.
+     */
+    public CampaignProgress stop(String campaignId) {
+        CampaignJob job = jobs.get(campaignId);
+        if (job == null) {
+            return null;
+        }
+        job.stop();
+        return job.getProgress();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        jobs.values().forEach(CampaignJob::stop);
+        runner.shutdown();
+        runner.awaitTermination(30, TimeUnit.SECONDS);
+    }
+
+    private Path resolve(String file) {
+        Path path = campaignDir.resolve(file).normalize();
+        if (!path.startsWith(campaignDir)) {
+            throw new IllegalArgumentException("File must be inside " + campaignDir + ": " + file);
+        }
+        return path;
+    }
+}
@@ -0,0 +1,362 @@
+package com.emailservice.emailservice.service;
+
+import com.emailservice.emailservice.model.EmailRequest;
+import com.emailservice.emailservice.model.EmailStatus;
+import com.emailservice.emailservice.scheduler.ScheduleJournal;
+import com.emailservice.emailservice.scheduler.ScheduleJournal.JournalRecord;
+import com.emailservice.emailservice.scheduler.TimingWheel;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Holds emails with a future sendAt and releases them into the normal send path when due.
+ */
+@Service
+public class EmailScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmailScheduler.class);
+
+    private static final long RATE_LIMIT_RETRY_MS = 10_000;   // Matches the rate limiter window
+    private static final long COMPACT_MIN_RECORDS = 100_000;  // Don't bother compacting small journals
+    private static final long SHUTDOWN_WAIT_SECONDS = 60;
+
+    private final EmailService emailService;
+    private final ObjectMapper objectMapper;
+    private final Path journalPath;
+    private final long tickMs;
+    private final int batchSize;
+    private final int dispatchThreads;
+
+    private final Object lock = new Object();
+    private final Map<String, EmailRequest> due = new LinkedHashMap<>();   // Released from the wheel, not yet dispatched
+    private final Map<String, EmailRequest> inFlight = new HashMap<>();     // Handed to the send path
+
+    private volatile boolean stopping;
+
+    private TimingWheel<EmailRequest> wheel;
+    private ScheduleJournal journal;
+    private ExecutorService dispatcher;
+
+    public EmailScheduler(EmailService emailService,
+                          ObjectMapper objectMapper,
+                          @Value("${email.scheduler.journal-path:data/scheduled-emails.log}") String journalPath,
+                          @Value("${email.scheduler.tick-ms:1000}") long tickMs,
+                          @Value("${email.scheduler.batch-size:100}") int batchSize,
+                          @Value("${email.scheduler.dispatch-threads:4}") int dispatchThreads) {
+        this.emailService = emailService;
+        this.objectMapper = objectMapper;
+        this.journalPath = Path.of(journalPath);
+        this.tickMs = tickMs;
+        this.batchSize = batchSize;
+        this.dispatchThreads = dispatchThreads;
+    }
+
+    /**
+     * Rebuild the wheel from the journal, then rewrite the journal with only the live entries.
+     */
+    @PostConstruct
+    public void start() throws IOException {
+        Path parent = journalPath.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+
+        journal = new ScheduleJournal(journalPath, objectMapper);
+        Map<String, JournalRecord> pending = journal.replay();
+
+        wheel = new TimingWheel<>(tickMs, System.currentTimeMillis());
+        for (JournalRecord record : pending.values()) {
+            wheel.schedule(record.getRequestId(), record.getDeadlineMs(), record.getRequest());
+        }
+        journal.beginCompaction();
+        journal.compact(this::isCurrent);
+        dispatcher = Executors.newFixedThreadPool(dispatchThreads);
+
+        logger.info("[EmailScheduler] Restored {} scheduled emails from {}", pending.size(), journalPath);
+    }
+
+    @PreDestroy
+    public void stop() throws IOException, InterruptedException {
+        stopping = true;
+        // Queued dispatches are dropped; their SCHEDULE records stay in the journal and run after a restart
+        dispatcher.shutdownNow();
+        if (!dispatcher.awaitTermination(SHUTDOWN_WAIT_SECONDS, TimeUnit.SECONDS)) {
+            // Sends still running need the journal for their RELEASE record; the OS closes it on exit
+            logger.warn("[EmailScheduler] Dispatches still running at shutdown, leaving the journal open");
+            return;
+        }
+        journal.close();
+    }
+
+    /**
+     * Schedule an email for its sendAt time. A requestId the send path already processed is not
+     * scheduled again; its existing status is returned, as EmailServiceImpl does for a duplicate send.
+     */
+    public EmailStatus schedule(EmailRequest request) {
+        String requestId = request.getRequestId();
+        EmailStatus processed = requestId != null ? emailService.getStatusByRequestId(requestId) : null;
+        if (processed != null && !"RATE_LIMITED".equals(processed.getStatus())) {
+            // A rate-limited attempt was never sent, so that one may still be scheduled
+            return new EmailStatus(
+                    processed.getRequestId(),
+                    processed.getStatus(),
+                    processed.getProviderUsed(),
+                    processed.getAttempts(),
+                    "⚠️ Already processed (idempotent). Email not scheduled.",
+                    processed.getTimestamp()
+            );
+        }
+
+        long deadlineMs = toEpochMs(request.getSendAt());
+        long seq;
+        synchronized (lock) {
+            EmailStatus existing = pendingStatus(requestId);
+            if (existing != null) {
+                existing.setMessage("⚠️ Already scheduled. Use reschedule to change the send time.");
+                return existing;
+            }
+
+            seq = writeSchedule(request, deadlineMs);
+            wheel.schedule(requestId, deadlineMs, request);
+        }
+        // Forced outside the lock, so concurrent schedules share one disk sync
+        sync(seq, requestId);
+        return scheduledStatus(requestId, deadlineMs, "Email scheduled for " + request.getSendAt());
+    }
+
+    /**
+     * Cancel a scheduled email. Returns null if nothing is scheduled under this requestId,
+     * or a SENDING status if it is already being sent and can no longer be cancelled.
+     */
+    public EmailStatus cancel(String requestId) {
+        long seq;
+        synchronized (lock) {
+            if (inFlight.containsKey(requestId)) {
+                return sendingStatus(requestId);
+            }
+            if (!wheel.contains(requestId) && !due.containsKey(requestId)) {
+                return null;
+            }
+            try {
+                seq = journal.appendCancel(requestId);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to journal cancel of " + requestId, e);
+            }
+            wheel.cancel(requestId);
+            due.remove(requestId);
+        }
+        sync(seq, requestId);
+        return new EmailStatus(requestId, "CANCELLED", null, 0, "Scheduled email cancelled", LocalDateTime.now());
+    }
+
+    /**
+     * Move a scheduled email to a new send time. Returns null if nothing is scheduled under this requestId,
+     * or a SENDING status if it is already being sent.
+     */
+    public EmailStatus reschedule(String requestId, OffsetDateTime sendAt) {
+        long deadlineMs = toEpochMs(sendAt);
+        long seq;
+        synchronized (lock) {
+            if (inFlight.containsKey(requestId)) {
+                return sendingStatus(requestId);
+            }
+            EmailRequest request = wheel.contains(requestId) ? wheel.get(requestId) : due.get(requestId);
+            if (request == null) {
+                return null;
+            }
+            request.setSendAt(sendAt);
+            seq = writeSchedule(request, deadlineMs);
+            due.remove(requestId);
+            wheel.schedule(requestId, deadlineMs, request);
+        }
+        sync(seq, requestId);
+        return scheduledStatus(requestId, deadlineMs, "Email rescheduled for " + sendAt);
+    }
+
+    /**
+     * Status of a scheduled email that has not been sent yet, or null if there is none.
+     */
+    public EmailStatus getStatus(String requestId) {
+        synchronized (lock) {
+            return pendingStatus(requestId);
+        }
+    }
+
+    /**
+     * Advance the wheel and hand up to batchSize due emails to the send path.
+     */
+    @Scheduled(fixedDelayString = "${email.scheduler.tick-ms:1000}")
+    public void releaseDue() {
+        if (stopping) {
+            return;
+        }
+        List<EmailRequest> batch = new ArrayList<>();
+        boolean compact;
+        synchronized (lock) {
+            for (EmailRequest request : wheel.advance(System.currentTimeMillis())) {
+                due.put(request.getRequestId(), request);
+            }
+
+            // Only top up to batchSize in flight, so a slow provider can't pile up work
+            int slots = batchSize - inFlight.size();
+            Iterator<EmailRequest> pending = due.values().iterator();
+            while (slots-- > 0 && pending.hasNext()) {
+                EmailRequest request = pending.next();
+                pending.remove();
+                inFlight.put(request.getRequestId(), request);
+                batch.add(request);
+            }
+            compact = beginCompactionIfDue();
+        }
+
+        try {
+            for (EmailRequest request : batch) {
+                dispatcher.execute(() -> dispatch(request));
+            }
+        } catch (RejectedExecutionException e) {
+            // Shutting down; undispatched emails are still journaled
+            return;
+        }
+
+        if (compact) {
+            // Streamed outside the lock; records appended meanwhile are carried over by the journal
+            try {
+                journal.compact(this::isCurrent);
+            } catch (IOException e) {
+                logger.error("[EmailScheduler] Journal compaction failed", e);
+            }
+        }
+    }
+
+    private void dispatch(EmailRequest request) {
+        String requestId = request.getRequestId();
+        EmailStatus status = null;
+        try {
+            status = emailService.sendEmail(request);
+        } catch (RuntimeException e) {
+            logger.error("[EmailScheduler] Failed to dispatch {}", requestId, e);
+        }
+
+        // Journal write and inFlight removal under one lock, so a compaction snapshot sees either both or neither
+        long seq;
+        synchronized (lock) {
+            inFlight.remove(requestId);
+            try {
+                if (status != null && "RATE_LIMITED".equals(status.getStatus())) {
+                    // Put it back in the wheel instead of dropping it
+                    long retryAt = System.currentTimeMillis() + RATE_LIMIT_RETRY_MS;
+                    seq = writeSchedule(request, retryAt);
+                    wheel.schedule(requestId, retryAt, request);
+                } else {
+                    seq = journal.appendRelease(requestId);
+                }
+            } catch (IOException | UncheckedIOException e) {
+                logger.error("[EmailScheduler] Failed to journal dispatch of {}", requestId, e);
+                return;
+            }
+        }
+        try {
+            sync(seq, requestId);
+        } catch (UncheckedIOException e) {
+            logger.error("[EmailScheduler] Failed to journal dispatch of {}", requestId, e);
+        }
+    }
+
+    /**
+     * Start a compaction if the journal is mostly dead records. Caller holds lock.
+     */
+    private boolean beginCompactionIfDue() {
+        int live = wheel.size() + due.size() + inFlight.size();
+        long records = journal.getRecordCount();
+        if (records < COMPACT_MIN_RECORDS || records < 2L * live) {
+            return false;
+        }
+        try {
+            journal.beginCompaction();
+            return true;
+        } catch (IOException e) {
+            logger.error("[EmailScheduler] Could not start journal compaction", e);
+            return false;
+        }
+    }
+
+    /**
+     * Whether a journaled SCHEDULE record still describes an unsent email. Takes the lock per record,
+     * so a compaction streaming millions of records never blocks schedule or cancel for long.
+     * Due and in-flight emails stay in the journal until they are released.
+     */
+    private boolean isCurrent(JournalRecord record) {
+        String requestId = record.getRequestId();
+        synchronized (lock) {
+            Long deadlineMs = wheel.deadlineOf(requestId);
+            if (deadlineMs != null) {
+                return deadlineMs == record.getDeadlineMs();
+            }
+            return due.containsKey(requestId) || inFlight.containsKey(requestId);
+        }
+    }
+
+    private EmailStatus pendingStatus(String requestId) {
+        Long deadlineMs = wheel.deadlineOf(requestId);
+        if (deadlineMs != null) {
+            return scheduledStatus(requestId, deadlineMs, "Email is scheduled");
+        }
+        EmailRequest request = due.get(requestId);
+        if (request != null) {
+            return scheduledStatus(requestId, System.currentTimeMillis(), "Email is due and waiting to be sent");
+        }
+        return inFlight.containsKey(requestId) ? sendingStatus(requestId) : null;
+    }
+
+    private static EmailStatus sendingStatus(String requestId) {
+        return new EmailStatus(requestId, "SENDING", null, 0, "Email is being sent", LocalDateTime.now());
+    }
+
+    private long writeSchedule(EmailRequest request, long deadlineMs) {
+        try {
+            return journal.appendSchedule(request, deadlineMs);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to journal schedule of " + request.getRequestId(), e);
+        }
+    }
+
+    private void sync(long seq, String requestId) {
+        try {
+            journal.sync(seq);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to sync journal for " + requestId, e);
+        }
+    }
+
+    private static EmailStatus scheduledStatus(String requestId, long deadlineMs, String message) {
+        LocalDateTime sendAt = LocalDateTime.ofInstant(Instant.ofEpochMilli(deadlineMs), ZoneId.systemDefault());
+        return new EmailStatus(requestId, "SCHEDULED", null, 0, message, sendAt);
+    }
+
+    private static long toEpochMs(OffsetDateTime time) {
+        return time.toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,285 @@
+package com.emailservice.emailservice.campaign;
+import com.emailservice.emailservice.model.CampaignProgress;
+import com.emailservice.emailservice.model.EmailRequest;
+import com.emailservice.emailservice.model.EmailStatus;
+import com.emailservice.emailservice.service.EmailScheduler;
+import com.emailservice.emailservice.service.EmailService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CampaignJobTest {
+
+    @TempDir
+    Path dir;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private EmailService emailService;
+    private EmailScheduler emailScheduler;
+
+    @BeforeEach
+    void setUp() {
+        emailService = mock(EmailService.class);
+        emailScheduler = mock(EmailScheduler.class);
+        when(emailService.sendEmail(any())).thenAnswer(invocation -> {
+            EmailRequest request = invocation.getArgument(0);
+            return new EmailStatus(request.getRequestId(), "SENT", "MockProvider1", 1,
+                    "Email sent successfully", LocalDateTime.now());
+        });
+    }
+
+    @Test
+    void testCsvRowsAreSentAndWrittenInOrder() throws Exception {
+        // Arrange
+        Path input = Files.writeString(dir.resolve("campaign.csv"),
+                "requestId,to,subject,body\n"
+                        + "r-1,a@example.com,\"Hello, A\",Body\n"
+                        + "\n"
+                        + ",b@example.com,Hello B,\"Say \"\"hi\"\"\"\n"
+                        + "r-3,,No recipient,Body\n");
+        Path output = dir.resolve("campaign.out");
+
+        // Act
+        CampaignJob job = newJob(input, output, CampaignRowParser.Format.CSV);
+        job.run();
+
+        // Assert
+        CampaignProgress progress = job.getProgress();
+        assertEquals("COMPLETED", progress.getState());
+        assertEquals(3, progress.getRowsProcessed());
+        assertEquals(2L, progress.getStatusCounts().get("SENT"));
+        assertEquals(1L, progress.getStatusCounts().get("INVALID"));
+        assertEquals(Files.size(input), progress.getBytesRead());
+
+        List<EmailStatus> results = readResults(output);
+        assertEquals("r-1", results.get(0).getRequestId());
+        assertTrue(results.get(1).getRequestId().matches("campaign-[0-9a-f]+-2")); // Generated from the row number
+        assertEquals("INVALID", results.get(2).getStatus());
+        verify(emailService).sendEmail(argThat(r -> "Say \"hi\"".equals(r.getBody())));
+        verify(emailService, times(2)).sendEmail(any());
+    }
+
+    @Test
+    void testResumeSkipsRowsWithRecordedResults() throws Exception {
+        // Arrange: rows 1-2 checkpointed, row 3 written after the checkpoint, then a torn line
+        Path input = Files.writeString(dir.resolve("campaign.ndjson"),
+                "{\"requestId\":\"n-1\",\"to\":\"a@example.com\"}\n"
+                        + "{\"requestId\":\"n-2\",\"to\":\"b@example.com\"}\n"
+                        + "{\"requestId\":\"n-3\",\"to\":\"c@example.com\"}\n"
+                        + "{\"requestId\":\"n-4\",\"to\":\"d@example.com\"}\n");
+        Path output = dir.resolve("campaign.out");
+        newJob(input, output, CampaignRowParser.Format.NDJSON, 2).run();
+
+        List<String> lines = Files.readAllLines(output);
+        Files.writeString(output, String.join("\n", lines.subList(0, 3)) + "\n{\"requestId\":\"n-");
+        Files.writeString(dir.resolve("campaign.out.checkpoint"), objectMapper.writeValueAsString(
+                new CampaignCheckpoint("campaign", Files.size(input), Files.getLastModifiedTime(input).toMillis(),
+                        lineEnd(input, 2), lineEnd(output, 2), 2, new HashMap<>(Map.of("SENT", 2L)), false)));
+        clearInvocations(emailService);
+
+        // Act
+        CampaignJob resumed = newJob(input, output, CampaignRowParser.Format.NDJSON, 2);
+        resumed.run();
+
+        // Assert: only row 4 is sent again
+        verify(emailService, times(1)).sendEmail(any());
+        verify(emailService).sendEmail(argThat(r -> "n-4".equals(r.getRequestId())));
+        assertEquals(4, resumed.getProgress().getRowsProcessed());
+        assertEquals(List.of("n-1", "n-2", "n-3", "n-4"),
+                readResults(output).stream().map(EmailStatus::getRequestId).toList());
+    }
+
+    @Test
+    void testFutureSendAtIsScheduled() throws Exception {
+        // Arrange
+        Path input = Files.writeString(dir.resolve("later.csv"),
+                "to,subject,body,sendAt\n"
+                        + "a@example.com,Later,Body," + OffsetDateTime.now().plusDays(1) + "\n");
+        when(emailScheduler.schedule(any())).thenReturn(
+                new EmailStatus("campaign-1", "SCHEDULED", null, 0, "Email scheduled", LocalDateTime.now()));
+
+        // Act
+        CampaignJob job = newJob(input, dir.resolve("later.out"), CampaignRowParser.Format.CSV);
+        job.run();
+
+        // Assert
+        verify(emailScheduler).schedule(any());
+        verify(emailService, never()).sendEmail(any());
+        assertEquals(1L, job.getProgress().getStatusCounts().get("SCHEDULED"));
+    }
+
+    @Test
+    void testStopFinishesRowsInFlightAndResumeSendsTheRest() throws Exception {
+        // Arrange: the campaign is stopped while r-1 is rate-limited and r-2 is already being sent
+        Path input = Files.writeString(dir.resolve("stop.csv"), "requestId,to\n"
+                + "r-1,a@example.com\n" + "r-2,b@example.com\n" + "r-3,c@example.com\n" + "r-4,d@example.com\n");
+        Path output = dir.resolve("stop.out");
+        AtomicReference<CampaignJob> running = new AtomicReference<>();
+        Map<String, Integer> sends = new ConcurrentHashMap<>();
+        // doAnswer, not when(): when() would call the mock and run the setUp answer with a null request
+        doAnswer(invocation -> {
+            EmailRequest request = invocation.getArgument(0);
+            if (sends.merge(request.getRequestId(), 1, Integer::sum) == 1 && "r-1".equals(request.getRequestId())) {
+                running.get().stop();
+                return new EmailStatus(request.getRequestId(), "RATE_LIMITED", null, 0,
+                        "Rate limit exceeded", LocalDateTime.now());
+            }
+            return new EmailStatus(request.getRequestId(), "SENT", "MockProvider1", 1,
+                    "Email sent successfully", LocalDateTime.now());
+        }).when(emailService).sendEmail(any());
+
+        // Act: first run stops, second run resumes
+        CampaignJob stopped = newJob(input, output, CampaignRowParser.Format.CSV);
+        running.set(stopped);
+        stopped.run();
+        List<EmailStatus> afterStop = readResults(output);
+
+        CampaignJob resumed = newJob(input, output, CampaignRowParser.Format.CSV);
+        resumed.run();
+
+        // Assert: the rate-limited row was retried rather than dropped, and nothing went out twice
+        assertEquals("STOPPED", stopped.getProgress().getState());
+        assertEquals(List.of("r-1", "r-2"), afterStop.stream().map(EmailStatus::getRequestId).toList());
+        assertTrue(afterStop.stream().allMatch(status -> "SENT".equals(status.getStatus())));
+
+        assertEquals("COMPLETED", resumed.getProgress().getState());
+        List<EmailStatus> results = readResults(output);
+        assertEquals(List.of("r-1", "r-2", "r-3", "r-4"), results.stream().map(EmailStatus::getRequestId).toList());
+        assertEquals(Map.of("r-1", 2, "r-2", 1, "r-3", 1, "r-4", 1), sends);
+        assertEquals(Map.of("SENT", 4L), resumed.getProgress().getStatusCounts());
+    }
+
+    @Test
+    void testRateLimitedRowIsRetriedUntilSent() throws Exception {
+        // Arrange: the first attempt is rate-limited, the retry goes through
+        Path input = Files.writeString(dir.resolve("retry.ndjson"), "{\"requestId\":\"n-1\",\"to\":\"a@example.com\"}\n");
+        Path output = dir.resolve("retry.out");
+        AtomicInteger attempts = new AtomicInteger();
+        doAnswer(invocation -> {
+            EmailRequest request = invocation.getArgument(0);
+            String status = attempts.incrementAndGet() == 1 ? "RATE_LIMITED" : "SENT";
+            return new EmailStatus(request.getRequestId(), status, null, 0, status, LocalDateTime.now());
+        }).when(emailService).sendEmail(any());
+
+        // Act
+        CampaignJob job = newJob(input, output, CampaignRowParser.Format.NDJSON);
+        job.run();
+
+        // Assert
+        verify(emailService, times(2)).sendEmail(any());
+        assertEquals("SENT", readResults(output).get(0).getStatus());
+        assertEquals(Map.of("SENT", 1L), job.getProgress().getStatusCounts());
+    }
+
+    @Test
+    void testReusedCampaignIdGetsNewRequestIdsForAnotherInput() throws Exception {
+        // Arrange: same campaignId, two input files without requestIds
+        Path week1 = Files.writeString(dir.resolve("week1.ndjson"), "{\"to\":\"a@example.com\"}\n");
+        Path week2 = Files.writeString(dir.resolve("week2.ndjson"), "{\"to\":\"a@example.com\"}\n");
+
+        // Act
+        newJob(week1, dir.resolve("week1.out"), CampaignRowParser.Format.NDJSON).run();
+        newJob(week2, dir.resolve("week2.out"), CampaignRowParser.Format.NDJSON).run();
+
+        // Assert: row 1 of each file has its own id, so week 2 is not dropped as a duplicate
+        String first = readResults(dir.resolve("week1.out")).get(0).getRequestId();
+        String second = readResults(dir.resolve("week2.out")).get(0).getRequestId();
+        assertNotEquals(first, second);
+        assertTrue(second.startsWith("campaign-") && second.endsWith("-1"));
+    }
+
+    @Test
+    void testNonObjectJsonRowIsInvalid() throws Exception {
+        Path input = Files.writeString(dir.resolve("rows.ndjson"), "null\n{\"to\":\"a@example.com\"}\n");
+
+        CampaignJob job = newJob(input, dir.resolve("rows.out"), CampaignRowParser.Format.NDJSON);
+        job.run();
+
+        assertEquals("COMPLETED", job.getProgress().getState());
+        assertEquals(1L, job.getProgress().getStatusCounts().get("INVALID"));
+        assertEquals(1L, job.getProgress().getStatusCounts().get("SENT"));
+    }
+
+    @Test
+    void testCheckpointOfAnotherCampaignOrChangedInputIsRejected() throws Exception {
+        // Arrange
+        Path input = Files.writeString(dir.resolve("shared.ndjson"), "{\"to\":\"a@example.com\"}\n");
+        Path output = dir.resolve("shared.out");
+        newJob(input, output, CampaignRowParser.Format.NDJSON).run();
+
+        // Act + Assert: another campaign may not reuse the output
+        CampaignJob other = new CampaignJob("other", input, output, new CampaignRowParser(CampaignRowParser.Format.NDJSON, objectMapper),
+                emailService, emailScheduler, objectMapper, 2, 100);
+        assertThrows(IllegalArgumentException.class, other::validateCheckpoint);
+
+        // Act + Assert: the same campaign may not resume into a replaced input
+        Files.writeString(input, "{\"to\":\"b@example.com\"}\n{\"to\":\"c@example.com\"}\n");
+        assertThrows(IllegalArgumentException.class, () -> newJob(input, output, CampaignRowParser.Format.NDJSON).validateCheckpoint());
+        verify(emailService, times(1)).sendEmail(any());
+    }
+
+    @Test
+    void testExistingOutputWithoutCheckpointIsNotAdopted() throws Exception {
+        // Arrange: the output is some unrelated file, here the input itself
+        String rows = "{\"to\":\"a@example.com\"}\n{\"to\":\"b@example.com\"}";
+        Path input = Files.writeString(dir.resolve("self.ndjson"), rows);
+
+        // Act
+        CampaignJob job = newJob(input, input, CampaignRowParser.Format.NDJSON);
+        job.run();
+
+        // Assert: rejected up front, nothing sent and the file left alone
+        assertThrows(IllegalArgumentException.class, job::validateCheckpoint);
+        assertEquals("FAILED", job.getProgress().getState());
+        assertEquals(rows, Files.readString(input));
+        verify(emailService, never()).sendEmail(any());
+    }
+
+    private CampaignJob newJob(Path input, Path output, CampaignRowParser.Format format) {
+        return newJob(input, output, format, 100);
+    }
+
+    private CampaignJob newJob(Path input, Path output, CampaignRowParser.Format format, int checkpointEvery) {
+        return new CampaignJob("campaign", input, output, new CampaignRowParser(format, objectMapper),
+                emailService, emailScheduler, objectMapper, 2, checkpointEvery);
+    }
+
+    private List<EmailStatus> readResults(Path output) throws Exception {
+        return Files.readAllLines(output).stream()
+                .map(line -> {
+                    try {
+                        return objectMapper.readValue(line, EmailStatus.class);
+                    } catch (Exception e) {
+                        throw new AssertionError(e);
+                    }
+                })
+                .toList();
+    }
+
+    // Byte offset just past the given number of lines
+    private long lineEnd(Path file, int lines) throws Exception {
+        byte[] bytes = Files.readAllBytes(file);
+        int seen = 0;
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] == '\n' && ++seen == lines) {
+                return i + 1;
+            }
+        }
+        return bytes.length;
+    }
+}
@@ -0,0 +1,68 @@
+package com.emailservice.emailservice.campaign;
+import com.emailservice.emailservice.model.EmailRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.time.OffsetDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CampaignRowParserTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @Test
+    void testCsvQuotedFields() {
+        // Arrange
+        CampaignRowParser parser = new CampaignRowParser(CampaignRowParser.Format.CSV, objectMapper);
+        parser.readHeader("RequestId,to,subject,body,sendAt");
+
+        // Act
+        EmailRequest request = parser.parse("r-1,a@example.com,\"Hello, A\",\"Say \"\"hi\"\"\",2025-07-11T09:00:00Z");
+
+        // Assert
+        assertEquals("r-1", request.getRequestId());
+        assertEquals("Hello, A", request.getSubject());
+        assertEquals("Say \"hi\"", request.getBody());
+        assertEquals(OffsetDateTime.parse("2025-07-11T09:00:00Z"), request.getSendAt());
+    }
+
+    @Test
+    void testCsvUnterminatedQuoteIsRejected() {
+        CampaignRowParser parser = new CampaignRowParser(CampaignRowParser.Format.CSV, objectMapper);
+        parser.readHeader("to,subject");
+
+        assertThrows(IllegalArgumentException.class, () -> parser.parse("a@example.com,\"Hello"));
+    }
+
+    @Test
+    void testCsvInvalidSendAtIsRejected() {
+        CampaignRowParser parser = new CampaignRowParser(CampaignRowParser.Format.CSV, objectMapper);
+        parser.readHeader("to,sendAt");
+
+        assertThrows(IllegalArgumentException.class, () -> parser.parse("a@example.com,tomorrow"));
+    }
+
+    @Test
+    void testCsvHeaderWithoutToColumnIsRejected() {
+        CampaignRowParser parser = new CampaignRowParser(CampaignRowParser.Format.CSV, objectMapper);
+
+        assertThrows(IllegalArgumentException.class, () -> parser.readHeader("requestId,email,subject"));
+    }
+
+    @Test
+    void testJsonRowThatIsNotAnObjectIsRejected() {
+        CampaignRowParser parser = new CampaignRowParser(CampaignRowParser.Format.NDJSON, objectMapper);
+
+        assertThrows(IllegalArgumentException.class, () -> parser.parse("null"));
+        assertThrows(IllegalArgumentException.class, () -> parser.parse("[1, 2]"));
+        assertThrows(IllegalArgumentException.class, () -> parser.parse("{\"to\":"));
+        assertEquals("a@example.com", parser.parse("{\"to\":\"a@example.com\"}").getTo());
+    }
+
+    @Test
+    void testFormatIsDetectedFromExtension() {
+        assertEquals(CampaignRowParser.Format.CSV, CampaignRowParser.detectFormat("july.CSV"));
+        assertEquals(CampaignRowParser.Format.NDJSON, CampaignRowParser.detectFormat("july.ndjson"));
+    }
+}
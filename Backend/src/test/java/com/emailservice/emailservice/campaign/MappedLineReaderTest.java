@@ -0,0 +1,60 @@
+package com.emailservice.emailservice.campaign;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedLineReaderTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testLinesSpanningWindowsAreRemapped() throws Exception {
+        // Arrange: with a 12-byte window, "bravo-long" starts at byte 6 and crosses the edge
+        Path file = Files.writeString(dir.resolve("rows.txt"), "alpha\nbravo-long\r\ncharlie\nd");
+
+        // Act
+        List<String> lines = new ArrayList<>();
+        List<Long> offsets = new ArrayList<>();
+        try (MappedLineReader reader = new MappedLineReader(file, 0, 12)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+                offsets.add(reader.getOffset());
+            }
+        }
+
+        // Assert
+        assertEquals(List.of("alpha", "bravo-long", "charlie", "d"), lines);
+        assertEquals(List.of(6L, 18L, 26L, 27L), offsets);
+    }
+
+    @Test
+    void testReadingStartsAtGivenOffset() throws Exception {
+        Path file = Files.writeString(dir.resolve("rows.txt"), "alpha\nbravo\ncharlie\n");
+
+        try (MappedLineReader reader = new MappedLineReader(file, 6, 8)) {
+            assertEquals("bravo", reader.readLine());
+            assertEquals("charlie", reader.readLine());
+            assertNull(reader.readLine());
+            assertEquals(Files.size(file), reader.getOffset());
+        }
+    }
+
+    @Test
+    void testLineLongerThanWindowIsRejected() throws Exception {
+        Path file = Files.writeString(dir.resolve("rows.txt"), "short\nthis-line-is-too-long\nend\n");
+
+        try (MappedLineReader reader = new MappedLineReader(file, 0, 8)) {
+            assertEquals("short", reader.readLine());
+            assertThrows(IOException.class, reader::readLine);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.emailservice.emailservice.scheduler;
+import com.emailservice.emailservice.model.EmailRequest;
+import com.emailservice.emailservice.scheduler.ScheduleJournal.JournalRecord;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScheduleJournalTest {
+
+    @TempDir
+    Path dir;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private Path path;
+    private ScheduleJournal journal;
+
+    @BeforeEach
+    void setUp() {
+        path = dir.resolve("scheduled-emails.log");
+        journal = new ScheduleJournal(path, objectMapper);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        journal.close();
+    }
+
+    @Test
+    void testReplayKeepsOnlyPendingSchedules() throws Exception {
+        // Arrange
+        journal.appendSchedule(request("a"), 1_000);
+        journal.appendSchedule(request("b"), 2_000);
+        journal.appendSchedule(request("c"), 3_000);
+        journal.appendSchedule(request("a"), 4_000);   // Reschedule: last record wins
+        journal.appendCancel("b");
+        journal.appendRelease("c");
+
+        // Act
+        Map<String, JournalRecord> pending = new ScheduleJournal(path, objectMapper).replay();
+
+        // Assert
+        assertEquals(List.of("a"), List.copyOf(pending.keySet()));
+        assertEquals(4_000, pending.get("a").getDeadlineMs());
+        assertEquals("a@example.com", pending.get("a").getRequest().getTo());
+    }
+
+    @Test
+    void testReplaySkipsTornLastLine() throws Exception {
+        // Arrange: a crash mid-append leaves half a record
+        journal.appendSchedule(request("a"), 1_000);
+        journal.close();
+        Files.writeString(path, "{\"op\":\"SCHEDULE\",\"requestId\":\"b\",\"dead", StandardOpenOption.APPEND);
+
+        // Act
+        Map<String, JournalRecord> pending = new ScheduleJournal(path, objectMapper).replay();
+
+        // Assert
+        assertEquals(List.of("a"), List.copyOf(pending.keySet()));
+    }
+
+    @Test
+    void testReplayOfMissingFileIsEmpty() throws Exception {
+        assertTrue(journal.replay().isEmpty());
+    }
+
+    @Test
+    void testCompactionKeepsLiveRecordsAndAppendsMadeDuringIt() throws Exception {
+        // Arrange
+        journal.appendSchedule(request("a"), 1_000);
+        journal.appendSchedule(request("b"), 2_000);
+        journal.appendCancel("b");
+
+        // Act: an append lands between the start of the compaction and the rewrite
+        journal.beginCompaction();
+        journal.appendSchedule(request("c"), 3_000);
+        journal.compact(record -> "a".equals(record.getRequestId()));
+        journal.appendRelease("a");
+
+        // Assert
+        assertEquals(3, journal.getRecordCount());
+        assertEquals(3, Files.readAllLines(path).size());
+        Map<String, JournalRecord> pending = new ScheduleJournal(path, objectMapper).replay();
+        assertEquals(List.of("c"), List.copyOf(pending.keySet()));
+        assertEquals(3_000, pending.get("c").getDeadlineMs());
+    }
+
+    @Test
+    void testCompactionOnlyOffersScheduleRecordsAndDropsTornLines() throws Exception {
+        // Arrange
+        journal.appendSchedule(request("a"), 1_000);
+        journal.appendRelease("a");
+        journal.appendSchedule(request("b"), 2_000);
+        journal.close();
+        Files.writeString(path, "{\"op\":\"SCHEDULE\",\"requestId\":\"c\",\"dead", StandardOpenOption.APPEND);
+        List<String> offered = new ArrayList<>();
+
+        // Act
+        journal.beginCompaction();
+        journal.compact(record -> offered.add(record.getOp() + ":" + record.getRequestId()) && "b".equals(record.getRequestId()));
+
+        // Assert
+        assertEquals(List.of("SCHEDULE:a", "SCHEDULE:b"), offered);
+        assertEquals(1, Files.readAllLines(path).size());
+        assertEquals(List.of("b"), List.copyOf(new ScheduleJournal(path, objectMapper).replay().keySet()));
+    }
+
+    @Test
+    void testConcurrentSyncsCoverEveryAppend() throws Exception {
+        // Arrange
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<?>> writers = new ArrayList<>();
+
+        // Act: every writer appends and waits for its own record to be durable
+        for (int i = 0; i < 200; i++) {
+            String requestId = "r-" + i;
+            writers.add(pool.submit(() -> {
+                journal.sync(journal.appendSchedule(request(requestId), 1_000));
+                return null;
+            }));
+        }
+        for (Future<?> writer : writers) {
+            writer.get();
+        }
+        pool.shutdown();
+
+        // Assert
+        assertEquals(200, new ScheduleJournal(path, objectMapper).replay().size());
+    }
+
+    @Test
+    void testSyncAfterCompactionSwappedTheFile() throws Exception {
+        // Arrange
+        long seq = journal.appendSchedule(request("a"), 1_000);
+        journal.beginCompaction();
+
+        // Act: the compaction forces everything it carries over, so the sync has nothing left to do
+        journal.compact(record -> true);
+        journal.sync(seq);
+        journal.sync(journal.appendCancel("a"));
+
+        // Assert
+        assertTrue(new ScheduleJournal(path, objectMapper).replay().isEmpty());
+    }
+
+    private static EmailRequest request(String requestId) {
+        return new EmailRequest(requestId, requestId + "@example.com", "Subject", "Body");
+    }
+}
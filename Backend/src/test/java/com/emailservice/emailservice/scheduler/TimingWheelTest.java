@@ -0,0 +1,70 @@
+package com.emailservice.emailservice.scheduler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimingWheelTest {
+
+    private static final long TICK_MS = 1000;
+    private static final long START_MS = 1_700_000_000_000L;
+
+    private TimingWheel<String> wheel;
+
+    @BeforeEach
+    void setUp() {
+        wheel = new TimingWheel<>(TICK_MS, START_MS);
+    }
+
+    @Test
+    void testEntryFiresOnlyOnceDue() {
+        // Arrange
+        wheel.schedule("id-1", START_MS + 5_000, "id-1");
+
+        // Act + Assert
+        assertTrue(wheel.advance(START_MS + 4_000).isEmpty());
+        assertEquals(List.of("id-1"), wheel.advance(START_MS + 5_000));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void testPastDeadlineFiresOnNextAdvance() {
+        wheel.schedule("late", START_MS - 60_000, "late");
+
+        assertEquals(List.of("late"), wheel.advance(START_MS));
+    }
+
+    @Test
+    void testFarDeadlineCascadesDownThroughLevels() {
+        // ~3 days out lands on an outer level and has to cascade down
+        long deadline = START_MS + 3L * 24 * 3600 * 1000 + 500;
+        wheel.schedule("far", deadline, "far");
+
+        assertTrue(wheel.advance(deadline - TICK_MS).isEmpty());
+        assertEquals(List.of("far"), wheel.advance(deadline + TICK_MS));
+    }
+
+    @Test
+    void testCancelRemovesEntry() {
+        wheel.schedule("keep", START_MS + 2_000, "keep");
+        wheel.schedule("drop", START_MS + 2_000, "drop");
+
+        assertEquals("drop", wheel.cancel("drop"));
+        assertNull(wheel.cancel("drop"));
+        assertFalse(wheel.contains("drop"));
+        assertEquals(List.of("keep"), wheel.advance(START_MS + 2_000));
+    }
+
+    @Test
+    void testRescheduleReplacesDeadline() {
+        wheel.schedule("id-2", START_MS + 2_000, "id-2");
+        wheel.schedule("id-2", START_MS + 10_000, "id-2");
+
+        assertEquals(1, wheel.size());
+        assertEquals(START_MS + 10_000, wheel.deadlineOf("id-2"));
+        assertTrue(wheel.advance(START_MS + 9_000).isEmpty());
+        assertEquals(List.of("id-2"), wheel.advance(START_MS + 10_000));
+    }
+}
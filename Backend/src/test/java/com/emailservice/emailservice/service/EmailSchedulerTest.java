@@ -0,0 +1,171 @@
+package com.emailservice.emailservice.service;
+import com.emailservice.emailservice.model.EmailRequest;
+import com.emailservice.emailservice.model.EmailStatus;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class EmailSchedulerTest {
+
+    @TempDir
+    Path dir;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private EmailService emailService;
+    private EmailScheduler scheduler;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        emailService = mock(EmailService.class);
+        when(emailService.sendEmail(any())).thenAnswer(invocation -> status(invocation.getArgument(0), "SENT"));
+        scheduler = newScheduler();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        scheduler.stop();
+    }
+
+    @Test
+    void testScheduleAndCancel() {
+        // Arrange
+        EmailRequest request = request("s-1", OffsetDateTime.now().plusHours(1));
+
+        // Act
+        EmailStatus scheduled = scheduler.schedule(request);
+        EmailStatus duplicate = scheduler.schedule(request);
+        EmailStatus cancelled = scheduler.cancel("s-1");
+
+        // Assert
+        assertEquals("SCHEDULED", scheduled.getStatus());
+        assertEquals("SCHEDULED", duplicate.getStatus());
+        assertTrue(duplicate.getMessage().contains("Already scheduled"));
+        assertEquals("CANCELLED", cancelled.getStatus());
+        assertNull(scheduler.getStatus("s-1"));
+        assertNull(scheduler.cancel("s-1"));
+        verify(emailService, never()).sendEmail(any());
+    }
+
+    @Test
+    void testAlreadyProcessedRequestIdIsNotScheduled() {
+        // Arrange
+        EmailRequest sent = request("done", OffsetDateTime.now().plusHours(1));
+        EmailRequest limited = request("limited", OffsetDateTime.now().plusHours(1));
+        when(emailService.getStatusByRequestId("done")).thenReturn(status(sent, "SENT"));
+        when(emailService.getStatusByRequestId("limited")).thenReturn(status(limited, "RATE_LIMITED"));
+
+        // Act
+        EmailStatus duplicate = scheduler.schedule(sent);
+        EmailStatus retried = scheduler.schedule(limited);
+
+        // Assert: the sent one keeps its result, the rate-limited one was never sent and may be scheduled
+        assertEquals("SENT", duplicate.getStatus());
+        assertTrue(duplicate.getMessage().contains("Already processed"));
+        assertNull(scheduler.getStatus("done"));
+        assertEquals("SCHEDULED", retried.getStatus());
+        assertEquals("SCHEDULED", scheduler.getStatus("limited").getStatus());
+    }
+
+    @Test
+    void testRescheduleMovesSendTime() {
+        // Arrange
+        OffsetDateTime later = OffsetDateTime.now().plusHours(2).withNano(0);
+        scheduler.schedule(request("s-2", OffsetDateTime.now().plusHours(1)));
+
+        // Act
+        EmailStatus status = scheduler.reschedule("s-2", later);
+
+        // Assert
+        assertEquals("SCHEDULED", status.getStatus());
+        assertEquals(later.toInstant(), scheduler.getStatus("s-2").getTimestamp()
+                .atZone(ZoneId.systemDefault()).toInstant());
+        assertNull(scheduler.reschedule("unknown", later));
+    }
+
+    @Test
+    void testDueEmailIsReleasedIntoSendPath() throws Exception {
+        // Arrange
+        scheduler.schedule(request("s-3", OffsetDateTime.now().minusSeconds(1)));
+
+        // Act
+        scheduler.releaseDue();
+
+        // Assert
+        verify(emailService, timeout(2_000)).sendEmail(argThat(r -> "s-3".equals(r.getRequestId())));
+        awaitUntil(() -> scheduler.getStatus("s-3") == null);
+    }
+
+    @Test
+    void testRateLimitedEmailIsRearmed() throws Exception {
+        // Arrange
+        // doAnswer, not when(): when() would call the mock and run the setUp answer with a null request
+        doAnswer(invocation -> status(invocation.getArgument(0), "RATE_LIMITED")).when(emailService).sendEmail(any());
+        scheduler.schedule(request("s-4", OffsetDateTime.now().minusSeconds(1)));
+
+        // Act
+        scheduler.releaseDue();
+
+        // Assert: back in the wheel for a later retry
+        verify(emailService, timeout(2_000)).sendEmail(any());
+        awaitUntil(() -> {
+            EmailStatus status = scheduler.getStatus("s-4");
+            return status != null && status.getTimestamp().isAfter(LocalDateTime.now().plusSeconds(5));
+        });
+    }
+
+    @Test
+    void testPendingEmailsAreRestoredAfterRestart() throws Exception {
+        // Arrange
+        scheduler.schedule(request("keep", OffsetDateTime.now().plusHours(1)));
+        scheduler.schedule(request("drop", OffsetDateTime.now().plusHours(1)));
+        scheduler.cancel("drop");
+        scheduler.schedule(request("sent", OffsetDateTime.now().minusSeconds(1)));
+        scheduler.releaseDue();
+        verify(emailService, timeout(2_000)).sendEmail(any());
+        awaitUntil(() -> scheduler.getStatus("sent") == null);
+
+        // Act
+        scheduler.stop();
+        scheduler = newScheduler();
+
+        // Assert
+        assertEquals("SCHEDULED", scheduler.getStatus("keep").getStatus());
+        assertNull(scheduler.getStatus("drop"));
+        assertNull(scheduler.getStatus("sent"));
+    }
+
+    private EmailScheduler newScheduler() throws Exception {
+        EmailScheduler created = new EmailScheduler(emailService, objectMapper,
+                dir.resolve("scheduled-emails.log").toString(), 10, 100, 1);
+        created.start();
+        return created;
+    }
+
+    private static EmailRequest request(String requestId, OffsetDateTime sendAt) {
+        return new EmailRequest(requestId, "user@example.com", "Reminder", "Body", sendAt);
+    }
+
+    private static EmailStatus status(EmailRequest request, String status) {
+        return new EmailStatus(request.getRequestId(), status, "MockProvider1", 1, status, LocalDateTime.now());
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(2).toNanos();
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Condition not met in time");
+            Thread.sleep(10);
+        }
+    }
+}